@@ -0,0 +1,171 @@
+package igc2flightlog;
+
+/**
+ * A single valid GPS fix taken from an IGC B record. Instances are immutable
+ * and can be shared freely between visitors and threads.
+ * @author pedwards
+ */
+public final class Fix {
+
+    private final String time;
+    private final String latitude;
+    private final String longitude;
+    private final String pressureAltitude;
+    private final String gnssAltitude;
+    private final String trueAirspeed;
+
+    private final int secondsOfDay;
+    private final double latitudeDegrees;
+    private final double longitudeDegrees;
+    private final int pressureAltitudeMeters;
+    private final int gnssAltitudeMeters;
+    private final int trueAirspeedKph;
+
+    /**
+     * @param time UTC time as HHMMSS
+     * @param latitude WGS84 latitude as DDMMmmmN
+     * @param longitude WGS84 longitude as DDDMMmmmE
+     * @param pressureAltitude pressure altitude in meters
+     * @param gnssAltitude GPS altitude in meters
+     * @param trueAirspeed true air speed in kph from the B record extension,
+     * empty or null if the logger does not record it
+     */
+    public Fix(String time, String latitude, String longitude, String pressureAltitude, String gnssAltitude, String trueAirspeed) {
+        this.time = time;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.pressureAltitude = pressureAltitude;
+        this.gnssAltitude = gnssAltitude;
+        this.trueAirspeed = (trueAirspeed == null) ? "" : trueAirspeed;
+
+        this.secondsOfDay = Integer.parseInt(time.substring(0, 2)) * 3600
+                + Integer.parseInt(time.substring(2, 4)) * 60
+                + Integer.parseInt(time.substring(4, 6));
+        this.latitudeDegrees = getCoordFromString(latitude);
+        this.longitudeDegrees = getCoordFromString(longitude);
+        this.pressureAltitudeMeters = Integer.parseInt(pressureAltitude);
+        this.gnssAltitudeMeters = Integer.parseInt(gnssAltitude);
+        this.trueAirspeedKph = getAirspeedFromString(this.trueAirspeed);
+    }
+
+    /**
+     * @return UTC time of the fix as it appears in the file (HHMMSS)
+     */
+    public String getTime() {
+        return time;
+    }
+
+    /**
+     * @return seconds since UTC midnight
+     */
+    public int getSecondsOfDay() {
+        return secondsOfDay;
+    }
+
+    /**
+     * @return latitude as it appears in the file e.g. 3453787N
+     */
+    public String getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * @return longitude as it appears in the file e.g. 08526761W
+     */
+    public String getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * @return latitude in decimal degrees, negative for the southern hemisphere
+     */
+    public double getLatitudeDegrees() {
+        return latitudeDegrees;
+    }
+
+    /**
+     * @return longitude in decimal degrees, negative for the western hemisphere
+     */
+    public double getLongitudeDegrees() {
+        return longitudeDegrees;
+    }
+
+    /**
+     * @return pressure altitude as it appears in the file
+     */
+    public String getPressureAltitude() {
+        return pressureAltitude;
+    }
+
+    /**
+     * @return GPS altitude as it appears in the file
+     */
+    public String getGnssAltitude() {
+        return gnssAltitude;
+    }
+
+    /**
+     * @return true air speed as it appears in the file, empty if not recorded
+     */
+    public String getTrueAirspeed() {
+        return trueAirspeed;
+    }
+
+    public int getPressureAltitudeMeters() {
+        return pressureAltitudeMeters;
+    }
+
+    public int getGnssAltitudeMeters() {
+        return gnssAltitudeMeters;
+    }
+
+    /**
+     * @return true air speed in kph, 0 if not recorded
+     */
+    public int getTrueAirspeedKph() {
+        return trueAirspeedKph;
+    }
+
+    /**
+     * The air speed lives in an optional extension to the B record, so anything
+     * other than digits is treated as no air speed
+     * @param airspeedString
+     * @return air speed in kph, or 0
+     */
+    private static int getAirspeedFromString(String airspeedString) {
+        if(airspeedString.length() == 0){
+            return 0;
+        }
+        for(int i = 0; i < airspeedString.length(); i++){
+            if(!Character.isDigit(airspeedString.charAt(i))){
+                return 0;
+            }
+        }
+        return Integer.parseInt(airspeedString);
+    }
+
+    /**
+     * Coordinates are input as WGS84 e.g. 3453787N 08526761W and
+     * need to be output in decimal format
+     * @param coordString
+     * @return double decimal value of coordinate
+     */
+    static double getCoordFromString(String coordString) {
+        String quadrant = coordString.substring(coordString.length()-1);
+        String coord = coordString.substring(0, coordString.length()-1);
+        double degrees;
+        double decimalMinutes;
+        if(quadrant.equals("W") || quadrant.equals("E")) {
+            degrees = Double.parseDouble(coord.substring(0,3));
+            decimalMinutes = Double.parseDouble(coord.substring(3))/1000/60;
+        } else{
+            degrees = Double.parseDouble(coord.substring(0,2));
+            decimalMinutes = Double.parseDouble(coord.substring(2))/1000/60;
+        }
+        double retval = degrees + decimalMinutes;
+        if(quadrant.equals("W") || quadrant.equals("S")) {
+            retval = retval * -1;
+        }
+        return retval;
+    }
+}
@@ -0,0 +1,39 @@
+package igc2flightlog;
+
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * Receives the contents of an IGC file as {@link FlightParser} reads it.
+ * Any number of visitors can be attached to a single parse so that several
+ * outputs are produced from one read of the file.
+ * <p>
+ * Visitors hold the state of the flight being parsed and are not thread-safe;
+ * create a new instance for every flight.
+ * @author pedwards
+ */
+public interface FixVisitor {
+
+    /**
+     * Called once before anything else is read from the flight
+     * @param name the name of the IGC file
+     */
+    void startFlight(String name) throws ParseException, IOException;
+
+    /**
+     * Called when the HFDTE header record is read
+     * @param date the flight date as ddMMyy
+     */
+    void flightDate(String date) throws ParseException, IOException;
+
+    /**
+     * Called for every B record that has a valid GPS fix, in file order
+     * @param fix
+     */
+    void fix(Fix fix) throws ParseException, IOException;
+
+    /**
+     * Called once after the last record of the flight has been read
+     */
+    void endFlight() throws ParseException, IOException;
+}
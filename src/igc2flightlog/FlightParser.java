@@ -0,0 +1,133 @@
+package igc2flightlog;
+
+import java.io.*;
+import java.text.ParseException;
+
+/**
+ * Streams the records of an IGC file to one or more {@link FixVisitor}s.
+ * The parser keeps no state between calls so a single instance can be shared
+ * by any number of threads; the visitors passed to each call belong to that
+ * call alone.
+ * @author pedwards
+ */
+public class FlightParser {
+
+    /**
+     * Length of a B record without any extensions
+     */
+    public static final int B_RECORD_LENGTH = 35;
+
+    /**
+     * Parse the file and push its contents to the visitors
+     * @param file
+     * @param visitors
+     * @throws ParseException
+     * @throws IOException
+     */
+    public void parse(File file, FixVisitor... visitors) throws ParseException, IOException {
+        BufferedReader bfr = new BufferedReader(new FileReader(file));
+        try {
+            parse(bfr, file.getName(), visitors);
+        } finally {
+            bfr.close();
+        }
+    }
+
+    /**
+     * Parse IGC records from the reader and push them to the visitors. The
+     * reader is not closed.
+     * @param reader
+     * @param name the name reported to the visitors, usually the file name
+     * @param visitors
+     * @throws ParseException
+     * @throws IOException
+     */
+    public void parse(Reader reader, String name, FixVisitor... visitors) throws ParseException, IOException {
+        BufferedReader bfr = (reader instanceof BufferedReader) ? (BufferedReader)reader : new BufferedReader(reader);
+
+        for(FixVisitor visitor : visitors){
+            visitor.startFlight(name);
+        }
+
+        String line = bfr.readLine();
+        while(line != null){
+            //Is the line the date?
+            if(line.indexOf("HFDTE") != -1){
+                String date = parseDate(line);
+                for(FixVisitor visitor : visitors){
+                    visitor.flightDate(date);
+                }
+            }else{
+                Fix fix = parseFix(line);
+                if(fix != null){
+                    for(FixVisitor visitor : visitors){
+                        visitor.fix(fix);
+                    }
+                }
+            }
+            line = bfr.readLine();
+        }
+
+        for(FixVisitor visitor : visitors){
+            visitor.endFlight();
+        }
+    }
+
+    /**
+     * Read the flight date from an HFDTE header, either the old HFDTEddMMyy
+     * form or the newer HFDTEDATE:ddMMyy,nn form
+     * @param line an HFDTE line from an IGC file
+     * @return the date as ddMMyy
+     */
+    public static String parseDate(String line) {
+        String date = line.substring(line.indexOf("HFDTE") + 5);
+        if(date.startsWith("DATE:")){
+            date = date.substring(5);
+        }
+        return (date.length() > 6) ? date.substring(0, 6) : date;
+    }
+
+    /**
+     * @param line a line from an IGC file
+     * @return true if the line is a complete B record with GPS altitude
+     */
+    public static boolean isFixRecord(String line) {
+        //is the line a B line?
+        if(line.indexOf("B")!=0 || line.length() < B_RECORD_LENGTH){
+            return false;
+        }
+        //Only use the line item if it has GPS altitude
+        return line.charAt(24) == 'A';
+    }
+
+    /**
+     * Turn a B record into a fix
+     * @param line a line from an IGC file
+     * @return the fix, or null if the line is not a complete B record or has no GPS altitude
+     * @throws NumberFormatException if the record has fields that are not numbers
+     */
+    public static Fix parseFix(String line) {
+        if(!isFixRecord(line)){
+            return null;
+        }
+        //the air speed is an extension that not every logger writes
+        String tas = (line.length() >= B_RECORD_LENGTH + 3) ? line.substring(35,38) : "";
+        return new Fix(line.substring(1, 7), line.substring(7, 15), line.substring(15,24),
+                line.substring(25,30), line.substring(30,35), tas);
+    }
+
+    /**
+     * Turn a B record into a fix, skipping a record that cannot be read instead
+     * of throwing. Use {@link #isFixRecord} to tell a skipped record from a line
+     * that is not a fix at all.
+     * @param line a line from an IGC file
+     * @return the fix, or null if the line is not a usable B record
+     */
+    public static Fix parseFixOrSkip(String line) {
+        try {
+            return parseFix(line);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
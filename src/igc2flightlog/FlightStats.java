@@ -0,0 +1,87 @@
+package igc2flightlog;
+
+/**
+ * Collects simple statistics over every valid fix of a flight.
+ * @author pedwards
+ */
+public class FlightStats implements FixVisitor {
+
+    private int fixCount = 0;
+    private int maxAirspeed = 0;
+    private int maxAltitude = Integer.MIN_VALUE;
+    private int minAltitude = Integer.MAX_VALUE;
+    private Fix firstFix = null;
+    private Fix lastFix = null;
+
+    @Override
+    public void startFlight(String name) {
+    }
+
+    @Override
+    public void flightDate(String date) {
+    }
+
+    @Override
+    public void fix(Fix fix) {
+        fixCount++;
+        if(firstFix == null){
+            firstFix = fix;
+        }
+        lastFix = fix;
+        if(fix.getTrueAirspeedKph() > maxAirspeed){
+            maxAirspeed = fix.getTrueAirspeedKph();
+        }
+        if(fix.getGnssAltitudeMeters() > maxAltitude){
+            maxAltitude = fix.getGnssAltitudeMeters();
+        }
+        if(fix.getGnssAltitudeMeters() < minAltitude){
+            minAltitude = fix.getGnssAltitudeMeters();
+        }
+    }
+
+    @Override
+    public void endFlight() {
+    }
+
+    /**
+     * @return the number of valid fixes in the flight
+     */
+    public int getFixCount() {
+        return fixCount;
+    }
+
+    /**
+     * @return the highest true air speed in kph
+     */
+    public int getMaxAirspeed() {
+        return maxAirspeed;
+    }
+
+    /**
+     * @return the highest GPS altitude in meters, or 0 if there were no fixes
+     */
+    public int getMaxAltitude() {
+        return fixCount == 0 ? 0 : maxAltitude;
+    }
+
+    /**
+     * @return the lowest GPS altitude in meters, or 0 if there were no fixes
+     */
+    public int getMinAltitude() {
+        return fixCount == 0 ? 0 : minAltitude;
+    }
+
+    /**
+     * @return the first valid fix, or null if there were none
+     */
+    public Fix getFirstFix() {
+        return firstFix;
+    }
+
+    /**
+     * @return the last valid fix, or null if there were none
+     */
+    public Fix getLastFix() {
+        return lastFix;
+    }
+}
@@ -0,0 +1,53 @@
+package igc2flightlog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes one comma delimited line for every pair of pilots that are close
+ * enough to each other at a time step.
+ * @author pedwards
+ */
+public class GaggleCsvWriter implements GaggleVisitor {
+
+    public static final String HEADER = "Time (UTC),Pilot A,Pilot B,Distance (m),Altitude Difference (ft),Relative Climb (fpm)";
+
+    private final BufferedWriter bfo;
+    private final double maxDistance;
+
+    /**
+     * @param bfo where the lines are written, left open when the merge ends
+     * @param maxDistance pairs further apart than this many kilometers are left out
+     */
+    public GaggleCsvWriter(BufferedWriter bfo, double maxDistance) {
+        this.bfo = bfo;
+        this.maxDistance = maxDistance;
+    }
+
+    @Override
+    public void samples(long time, List<TrackSample> samples) {
+    }
+
+    @Override
+    public void pair(TrackSample a, TrackSample b, double distance, double relativeClimb) throws IOException {
+        if(distance > maxDistance){
+            return;
+        }
+        long seconds = a.getTime() % (24 * 60 * 60);
+        StringBuilder newLine = new StringBuilder();
+        newLine.append(String.format("%02d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60));
+        newLine.append(",");
+        newLine.append(a.getName());
+        newLine.append(",");
+        newLine.append(b.getName());
+        newLine.append(",");
+        newLine.append(Math.round(distance * 1000));
+        newLine.append(",");
+        newLine.append(Math.round((a.getAltitude() - b.getAltitude()) * IGC2FlightLog.FEET_PER_METER));
+        newLine.append(",");
+        newLine.append(Math.round(relativeClimb * 60 * IGC2FlightLog.FEET_PER_METER));
+        bfo.write(newLine.toString());
+        bfo.newLine();
+    }
+}
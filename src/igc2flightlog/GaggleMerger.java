@@ -0,0 +1,134 @@
+package igc2flightlog;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Streams any number of IGC tracks in timestamp order and interpolates them to
+ * a common time base so they can be compared fix by fix. Each file is read
+ * once, front to back, through a cursor that holds only the fixes either side
+ * of the current time, so memory depends on the number of tracks and not on
+ * their length. A heap ordered by each cursor's next fix time decides which
+ * files to read from.
+ * <p>
+ * Fix times are placed on an absolute UTC time base using the HFDTE date of
+ * each file, so flights that cross midnight or were logged on different dates
+ * still line up. A merger keeps no state between calls and can be shared
+ * between threads.
+ * @author pedwards
+ */
+public class GaggleMerger {
+
+    private static final Comparator<TrackCursor> BY_NEXT_TIME = new Comparator<TrackCursor>() {
+        @Override
+        public int compare(TrackCursor a, TrackCursor b) {
+            return a.getNextTime() < b.getNextTime() ? -1 : (a.getNextTime() == b.getNextTime() ? 0 : 1);
+        }
+    };
+
+    /**
+     * Longest gap in seconds between two fixes of a track that is interpolated
+     * across. A track is left out of the time steps inside a longer gap.
+     */
+    public static final int MAX_GAP = 60;
+
+    private final int step;
+
+    /**
+     * @param step seconds between samples on the common time base
+     */
+    public GaggleMerger(int step) {
+        if(step < 1){
+            throw new IllegalArgumentException("The time step must be at least one second");
+        }
+        this.step = step;
+    }
+
+    /**
+     * Merge the files and push every time step to the visitors
+     * @param files
+     * @param visitors
+     * @throws IOException
+     */
+    public void merge(List<File> files, GaggleVisitor... visitors) throws IOException {
+        List<BufferedReader> readers = new ArrayList<BufferedReader>();
+        try {
+            List<TrackCursor> cursors = new ArrayList<TrackCursor>();
+            for(File file : files){
+                BufferedReader bfr = new BufferedReader(new FileReader(file));
+                readers.add(bfr);
+                cursors.add(new TrackCursor(file.getName(), bfr));
+            }
+            mergeCursors(cursors, visitors);
+        } finally {
+            for(BufferedReader bfr : readers){
+                bfr.close();
+            }
+        }
+    }
+
+    private void mergeCursors(List<TrackCursor> cursors, GaggleVisitor... visitors) throws IOException {
+        PriorityQueue<TrackCursor> heap = new PriorityQueue<TrackCursor>(Math.max(1, cursors.size()), BY_NEXT_TIME);
+        for(TrackCursor cursor : cursors){
+            if(cursor.hasNext()){
+                heap.add(cursor);
+            }
+        }
+        if(heap.isEmpty()){
+            return;
+        }
+
+        List<TrackSample> samples = new ArrayList<TrackSample>(cursors.size());
+        long time = alignUp(heap.peek().getNextTime());
+        while(!heap.isEmpty()){
+            //move every track up to the current time
+            while(!heap.isEmpty() && heap.peek().getNextTime() <= time){
+                TrackCursor cursor = heap.poll();
+                cursor.advance();
+                if(cursor.hasNext()){
+                    heap.add(cursor);
+                }
+            }
+
+            samples.clear();
+            for(TrackCursor cursor : cursors){
+                TrackSample sample = cursor.sampleAt(time);
+                if(sample != null){
+                    samples.add(sample);
+                }
+            }
+
+            if(samples.isEmpty()){
+                //nobody is in the air, skip ahead to the next fix
+                if(!heap.isEmpty()){
+                    time = alignUp(heap.peek().getNextTime());
+                }
+                continue;
+            }
+
+            for(GaggleVisitor visitor : visitors){
+                visitor.samples(time, samples);
+            }
+            for(int i = 0; i < samples.size(); i++){
+                TrackSample a = samples.get(i);
+                for(int j = i + 1; j < samples.size(); j++){
+                    TrackSample b = samples.get(j);
+                    double distance = Haversine.haversine(a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude());
+                    double relativeClimb = a.getClimbRate() - b.getClimbRate();
+                    for(GaggleVisitor visitor : visitors){
+                        visitor.pair(a, b, distance, relativeClimb);
+                    }
+                }
+            }
+            time += step;
+        }
+    }
+
+    private long alignUp(long time) {
+        long remainder = time % step;
+        return remainder == 0 ? time : time + step - remainder;
+    }
+}
@@ -0,0 +1,31 @@
+package igc2flightlog;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Receives the time-aligned tracks of a {@link GaggleMerger} one time step at
+ * a time.
+ * @author pedwards
+ */
+public interface GaggleVisitor {
+
+    /**
+     * Called once per time step with every track that has fixes either side of
+     * it. A track whose fixes either side are more than {@link GaggleMerger#MAX_GAP}
+     * seconds apart is left out rather than interpolated across the gap.
+     * @param time seconds since 1970-01-01 UTC
+     * @param samples the tracks at that time, only valid for the duration of the call
+     */
+    void samples(long time, List<TrackSample> samples) throws IOException;
+
+    /**
+     * Called for every pair of tracks present at a time step, after {@link #samples}.
+     * Tracks left out of the time step because of a gap in their log are not paired.
+     * @param a
+     * @param b
+     * @param distance distance between the two in kilometers
+     * @param relativeClimb climb rate of a minus climb rate of b in meters per second
+     */
+    void pair(TrackSample a, TrackSample b, double distance, double relativeClimb) throws IOException;
+}
@@ -0,0 +1,73 @@
+package igc2flightlog;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Compare every pilot's IGC file for a task fix by fix and write the distance,
+ * altitude difference and relative climb of each pair of pilots flying close
+ * to each other as a comma delimited text file.
+ * @author pedwards
+ */
+public class IGC2Gaggle {
+
+    public static final int DEFAULT_STEP = 5;
+    public static final double DEFAULT_MAX_DISTANCE = 2.0;
+
+    /**
+     * @param args the directory of IGC files for the task, the output file path,
+     * then optionally the seconds between samples and the largest distance in
+     * kilometers between two pilots that is still written out
+     */
+    public static void main(String[] args) {
+
+        if(args.length < 2){
+            Logger.getLogger(IGC2Gaggle.class.getName()).log(Level.SEVERE, "Please pass in the input directory as the first argument and the output file path as the second");
+            System.exit(1);
+        }
+
+        String filename = args[0];
+        String outfilename = args[1];
+        int step = DEFAULT_STEP;
+        double maxDistance = DEFAULT_MAX_DISTANCE;
+        try {
+            if(args.length > 2){
+                step = Integer.parseInt(args[2]);
+            }
+            if(args.length > 3){
+                maxDistance = Double.parseDouble(args[3]);
+            }
+        } catch (NumberFormatException ex) {
+            Logger.getLogger(IGC2Gaggle.class.getName()).log(Level.SEVERE, "The time step and distance must be numbers", ex);
+            System.exit(1);
+        }
+
+        //Load the file(s) into an iterable array
+        ArrayList<File> files = new IGC2FlightLog().getIGCFilesFromPath(filename);
+        if(files.size() < 1){
+            Logger.getLogger(IGC2Gaggle.class.getName()).log(Level.SEVERE, "No IGC files on the path specified");
+            System.exit(0);
+        }
+        //File.list has no defined order, sort so the pilot columns are the same on every machine
+        Collections.sort(files);
+
+        BufferedWriter bfo = null;
+        try {
+            bfo = new BufferedWriter(new FileWriter(new File(outfilename)));
+            bfo.write(GaggleCsvWriter.HEADER);
+            bfo.newLine();
+            new GaggleMerger(step).merge(files, new GaggleCsvWriter(bfo, maxDistance));
+            bfo.close();
+        } catch (Exception ex) {
+            Logger.getLogger(IGC2Gaggle.class.getName()).log(Level.SEVERE, "The files could not be merged", ex);
+            System.exit(1);
+        }
+
+        System.out.println("Gaggle File Written!");
+        //exit
+        System.exit(0);
+    }
+}
@@ -0,0 +1,171 @@
+package igc2flightlog;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Writes the fixes and flight path of a single flight as a KML Document.
+ * Several flights can share one output between a call to {@link #writeHeader}
+ * and a call to {@link #writeFooter}.
+ * @author pedwards
+ */
+public class KmlWriter implements FixVisitor {
+
+    private final BufferedWriter bfo;
+
+    private String launchDate = "";
+    private int previousTAS = 0;
+    private final SimpleDateFormat sdfIn = new SimpleDateFormat("ddMMyykkmmss");
+    private final SimpleDateFormat sdfOut = new SimpleDateFormat("MM/dd/yyyy kk:mm");
+    private final StringBuilder lineKml = new StringBuilder();
+    private final StringBuilder lineCoords = new StringBuilder();
+    private boolean flightBegun = false;
+    private boolean flightEnded = false;
+    private Fix previousPoint = null;
+
+    /**
+     * @param bfo where the KML is written, left open when the flight ends
+     */
+    public KmlWriter(BufferedWriter bfo) {
+        this.bfo = bfo;
+    }
+
+    /**
+     * Start a KML file
+     * @param bfo
+     * @throws IOException
+     */
+    public static void writeHeader(BufferedWriter bfo) throws IOException {
+        bfo.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        bfo.newLine();
+        bfo.write("<kml xmlns=\"http://www.opengis.net/kml/2.2\">");
+        bfo.newLine();
+    }
+
+    /**
+     * Finish a KML file started with {@link #writeHeader}
+     * @param bfo
+     * @throws IOException
+     */
+    public static void writeFooter(BufferedWriter bfo) throws IOException {
+        bfo.write("</kml>");
+    }
+
+    @Override
+    public void startFlight(String name) throws IOException {
+        bfo.write("<Document><name>Awesome Flight!</name>");
+        bfo.newLine();
+        bfo.write("<open>1</open>\n");
+        bfo.write("<Style id=\"green-dot\">\n" +
+        "      <IconStyle>\n" +
+        "        <scale>.2</scale>\n" +
+        "        <Icon>\n" +
+        "          <href>http://maps.google.com/mapfiles/kml/paddle/grn-blank-lv.png</href>\n" +
+        "        </Icon>\n" +
+        "      </IconStyle>\n" +
+        "    </Style>");
+        bfo.newLine();
+    }
+
+    @Override
+    public void flightDate(String date) {
+        launchDate = date;
+    }
+
+    @Override
+    public void fix(Fix dp) throws ParseException, IOException {
+        int airspeed = (int)(Math.round(dp.getTrueAirspeedKph() * 0.621371));
+        double tempAlt = dp.getGnssAltitudeMeters();
+        tempAlt = tempAlt * IGC2KML.FEET_PER_METER; //convert meters to feet
+        int pointAlt = (int)Math.round(tempAlt);
+        double lat = dp.getLatitudeDegrees();
+        double lon = dp.getLongitudeDegrees();
+        int groundSpeed = 0;
+
+        if(previousPoint != null) {
+            double lat1 = previousPoint.getLatitudeDegrees();
+            double lon1 = previousPoint.getLongitudeDegrees();
+            long time1 = previousPoint.getSecondsOfDay();
+            long time2 = dp.getSecondsOfDay();
+            groundSpeed = getGroundSpeed(lat1, lon1, lat, lon, time1, time2);
+            //convert kph to mph
+            groundSpeed = (int)(Math.round(groundSpeed * 0.621371));
+        }
+        previousPoint = dp;
+
+        //The linestring
+        lineCoords.append(lon).append(",").append(lat).append(",").append(dp.getGnssAltitude()).append(" ");
+
+        if(flightEnded) {
+            return;
+        }
+
+        if(!flightBegun){
+            if(airspeed>0){
+                flightBegun = true;
+                Date launchTime = sdfIn.parse(launchDate+dp.getTime());
+                bfo.write("<Folder>\n<name>Fixes - " + sdfOut.format(launchTime) + " UTC</name>\n");
+                lineKml.append("<Folder>\n<name>Flightpath - ").append(sdfOut.format(launchTime)).append(" UTC</name>\n");
+                lineKml.append("<Placemark>\n<LineString>\n<altitudeMode>absolute</altitudeMode>\n");
+                lineKml.append("<coordinates>\n");
+                bfo.newLine();
+            } else {
+                return;
+            }
+        }
+
+        bfo.write("<Placemark>");
+        bfo.newLine();
+        bfo.write("<styleUrl>#green-dot</styleUrl>");
+        bfo.newLine();
+        bfo.write("<ExtendedData>");
+        bfo.newLine();
+        bfo.write("<Data name=\"tas\"><displayName>True Air Speed</displayName><value>" + airspeed + " mph</value></Data>");
+        bfo.newLine();
+        bfo.write("<Data name=\"gspd\"><displayName>Ground Speed</displayName><value>" + groundSpeed + " mph</value></Data>");
+        bfo.newLine();
+        bfo.write("<Data name=\"alt\"><displayName>Altitude</displayName><value>" + pointAlt + " ft</value></Data>");
+        bfo.newLine();
+        bfo.write("</ExtendedData>");
+        bfo.write("<Point><altitudeMode>absolute</altitudeMode>");
+        bfo.newLine();
+        bfo.write("<coordinates>" + lon + "," + lat + "," + dp.getGnssAltitude() + "</coordinates>");
+        bfo.newLine();
+        bfo.write("</Point>");
+        bfo.newLine();
+        bfo.write("</Placemark>");
+        bfo.newLine();
+
+        if(flightBegun && airspeed==0 && previousTAS==0){
+            //flight ended
+            flightEnded = true;
+        }
+        previousTAS = airspeed;
+    }
+
+    @Override
+    public void endFlight() throws IOException {
+        //a flight that never launched has no folders to close
+        if(flightBegun){
+            bfo.write("</Folder>\n");
+            lineKml.append(lineCoords.toString().trim()).append("\n</coordinates>\n</LineString>\n</Placemark>\n</Folder>");
+            bfo.write(lineKml.toString());
+        }
+        bfo.write("</Document>");
+        bfo.newLine();
+    }
+
+    private int getGroundSpeed(double lat1, double lon1, double lat2, double lon2, long time1, long time2) {
+        double km = Haversine.haversine(lat1, lon1, lat2, lon2);
+        long seconds = time2-time1;
+        //duplicate or out of order fixes have no meaningful speed
+        if(seconds <= 0){
+            return 0;
+        }
+        double kph = (km/seconds)*60*60;
+        return (int)kph;
+    }
+}
@@ -0,0 +1,145 @@
+package igc2flightlog;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+
+/**
+ * Builds the comma delimited flight log entry for a single flight.
+ * @author pedwards
+ */
+public class LogEntryBuilder implements FixVisitor {
+
+    public static final String HEADER = "Flight No.,Launch Time (UTC),Flight Duration,Launch Altitude,Max Altitude,Land Altitude,Max Avg 2s-15s-30s,Launch Point,Landing Point,Site Name,Notes,Landing,IGC File Name";
+
+    private String fileName = "";
+    private String launchDate = "";
+    //every fix is kept for the climb rate averages
+    private final ArrayList<Fix> dataPoints = new ArrayList<Fix>();
+
+    //variables for calculating stuff
+    private int previousTAS = 0;
+    private int maxAlt = 0;
+    private String duration = "";
+    private int beginAlt = 0;
+    private int endAlt = 0;
+    private String launchPoint = "";
+    private String landPoint = "";
+    private Date launchTime = null;
+    private Date landTime = null;
+    private final SimpleDateFormat sdf = new SimpleDateFormat("ddMMyykkmmss");
+    private boolean flightBegun = false;
+    private boolean flightEnded = false;
+
+    private String logEntry = null;
+
+    @Override
+    public void startFlight(String name) {
+        fileName = name;
+    }
+
+    @Override
+    public void flightDate(String date) {
+        launchDate = date;
+    }
+
+    @Override
+    public void fix(Fix fix) throws ParseException {
+        dataPoints.add(fix);
+        if(flightEnded){
+            return;
+        }
+
+        int airspeed = fix.getTrueAirspeedKph();
+        double temp = fix.getGnssAltitudeMeters();
+        temp = temp * IGC2FlightLog.FEET_PER_METER; //convert meters to feet
+        int pointAlt = (int)Math.round(temp);
+        if(!flightBegun && airspeed>0){
+            flightBegun = true;
+            launchTime = sdf.parse(launchDate+fix.getTime());
+            beginAlt = pointAlt;
+            maxAlt = pointAlt;
+            launchPoint = fix.getLatitude() + " " + fix.getLongitude();
+        }
+
+        if(pointAlt > maxAlt) maxAlt = pointAlt;
+        if(flightBegun && airspeed==0 && previousTAS==0){
+            //flight ended
+            flightEnded = true;
+            landTime = sdf.parse(launchDate+fix.getTime());
+            landPoint = fix.getLatitude() + " " + fix.getLongitude();
+            endAlt = pointAlt;
+            long minutes = (landTime.getTime() - launchTime.getTime())/1000/60;
+            long hours = minutes/60;
+            minutes = minutes % 60;
+            minutes++; //I'd rather round up
+            duration = Long.toString(hours) + ":" + Long.toString(minutes) + ":" + "00";
+        }
+        previousTAS = airspeed;
+    }
+
+    @Override
+    public void endFlight() {
+        SimpleDateFormat out = new SimpleDateFormat("MM/dd/yyyy kk:mm:ss");
+        StringBuilder newLine = new StringBuilder(",");
+        //a flight that never launched has no launch time or duration
+        if(launchTime != null){
+            newLine.append(out.format(launchTime));
+        }
+        newLine.append(",");
+        newLine.append(duration);
+        newLine.append(",");
+        newLine.append(Integer.toString(beginAlt));
+        newLine.append(",");
+        newLine.append(Integer.toString(maxAlt));
+        newLine.append(",");
+        newLine.append(Integer.toString(endAlt));
+        newLine.append(",");
+        newLine.append(getAverageClimbRate(2)).append("-").append(getAverageClimbRate(15)).append("-").append(getAverageClimbRate(30));
+        newLine.append(",");
+        newLine.append(launchPoint);
+        newLine.append(",");
+        newLine.append(landPoint);
+        newLine.append(",,,,");
+        newLine.append(fileName);
+        logEntry = newLine.toString();
+    }
+
+    /**
+     * @return the log entry, available once the flight has been parsed
+     */
+    public String getLogEntry() {
+        return logEntry;
+    }
+
+    private int getAverageClimbRate(int interval){
+        int maxAvg = 0;
+        int avg = 0;
+        for(Fix dp : dataPoints) {
+            //Ignore any measurements when not flying
+            if(dp.getTrueAirspeedKph() == 0){
+                continue;
+            }
+            for(Fix dp2 : dataPoints){
+                double secs = (double)(dp2.getSecondsOfDay() - dp.getSecondsOfDay());
+                if(secs >= interval){ //greater than x seconds between points
+                    double alt1 = dp.getPressureAltitudeMeters();
+                    double alt2 = dp2.getPressureAltitudeMeters();
+                    if(alt2 > alt1){ //higher altitude on the second point means we're climbing
+                        double tmp = (alt2-alt1)/secs; //average climb in meters per second
+                        tmp = tmp*60; //average climb in meters per minute
+                        tmp = tmp*IGC2FlightLog.FEET_PER_METER; //average climb in feet per minute
+                        avg = (int)Math.round(tmp);
+                        if(avg > maxAvg){
+                            maxAvg = avg;
+                        }
+                    }
+                    break;
+                }
+            }
+        }
+        return maxAvg;
+    }
+}
@@ -0,0 +1,179 @@
+package igc2flightlog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.TimeZone;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads one IGC track a fix at a time, keeping only the two fixes either side
+ * of the current merge time. Times are seconds since 1970-01-01 UTC, taken
+ * from the HFDTE date of the file and the time of day of each fix, so tracks
+ * from different files share one time base.
+ * @author pedwards
+ */
+class TrackCursor {
+
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final String name;
+    private final BufferedReader bfr;
+
+    private Fix previous = null;
+    private long previousTime = 0;
+    private Fix next = null;
+    private long nextTime = 0;
+    private long date = 0;
+    private boolean hasDate = false;
+    private boolean warnedNoDate = false;
+    private int dayOffset = 0;
+    private int lastRawTime = -1;
+    private int skipped = 0;
+    //the last interpolated sample, for the climb rate over one time step
+    private boolean hasLastSample = false;
+    private long lastSampleTime = 0;
+    private double lastSampleAlt = 0;
+
+    /**
+     * @param name the pilot or file name reported with every sample
+     * @param bfr the IGC file, closed by the caller
+     */
+    TrackCursor(String name, BufferedReader bfr) throws IOException {
+        this.name = name;
+        this.bfr = bfr;
+        advance();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return true while there is a fix that has not been passed yet
+     */
+    boolean hasNext() {
+        return next != null;
+    }
+
+    long getNextTime() {
+        return nextTime;
+    }
+
+    /**
+     * Move past the next fix, so it becomes the previous one
+     */
+    final void advance() throws IOException {
+        if(next != null){
+            previous = next;
+            previousTime = nextTime;
+        }
+        next = null;
+        String line = bfr.readLine();
+        while(line != null){
+            if(line.indexOf("HFDTE") != -1){
+                readDate(FlightParser.parseDate(line));
+            }else if(FlightParser.isFixRecord(line)){
+                Fix fix = FlightParser.parseFixOrSkip(line);
+                if(fix != null){
+                    setNext(fix);
+                    return;
+                }
+                skipped++;
+            }
+            line = bfr.readLine();
+        }
+        if(skipped > 0){
+            Logger.getLogger(TrackCursor.class.getName()).log(Level.WARNING, "Skipped " + skipped + " malformed B records in " + name);
+            skipped = 0;
+        }
+    }
+
+    private void setNext(Fix fix) {
+        if(!hasDate && !warnedNoDate){
+            Logger.getLogger(TrackCursor.class.getName()).log(Level.WARNING, "No HFDTE date before the first fix in " + name + ", it will not line up with other tracks");
+            warnedNoDate = true;
+        }
+        int rawTime = fix.getSecondsOfDay();
+        //a jump back of more than half a day means the flight crossed UTC midnight
+        if(rawTime < lastRawTime - SECONDS_PER_DAY/2){
+            dayOffset += SECONDS_PER_DAY;
+        }
+        lastRawTime = rawTime;
+        next = fix;
+        nextTime = date + dayOffset + rawTime;
+    }
+
+    /**
+     * Turn the flight date into seconds since 1970-01-01 UTC
+     * @param ddmmyy
+     */
+    private void readDate(String ddmmyy) {
+        try {
+            int day = Integer.parseInt(ddmmyy.substring(0, 2));
+            int month = Integer.parseInt(ddmmyy.substring(2, 4));
+            int year = Integer.parseInt(ddmmyy.substring(4, 6));
+            Calendar calendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
+            calendar.clear();
+            calendar.set(year < 80 ? 2000 + year : 1900 + year, month - 1, day);
+            date = calendar.getTimeInMillis() / 1000;
+            hasDate = true;
+        } catch (RuntimeException ex) {
+            Logger.getLogger(TrackCursor.class.getName()).log(Level.WARNING, "Could not read the date " + ddmmyy + " from " + name);
+        }
+    }
+
+    /**
+     * Interpolate the position of the track at the given time. Call once for
+     * every time step in order; the climb rate is taken over the time since the
+     * previous call that returned a sample.
+     * @param time
+     * @return the sample, or null if the track has no fixes either side of the time
+     * or they are more than {@link GaggleMerger#MAX_GAP} seconds apart
+     */
+    TrackSample sampleAt(long time) {
+        if(previous == null || time < previousTime){
+            hasLastSample = false;
+            return null;
+        }
+        double lat;
+        double lon;
+        double alt;
+        //the climb between the fixes either side, used until there is a previous sample
+        double fixClimb;
+        if(next == null){
+            if(time != previousTime){
+                hasLastSample = false;
+                return null;
+            }
+            lat = previous.getLatitudeDegrees();
+            lon = previous.getLongitudeDegrees();
+            alt = previous.getGnssAltitudeMeters();
+            fixClimb = 0;
+        }else{
+            long span = nextTime - previousTime;
+            //don't invent a path across a gap in the log
+            if(span > GaggleMerger.MAX_GAP){
+                hasLastSample = false;
+                return null;
+            }
+            double fraction = (span == 0) ? 0 : (double)(time - previousTime) / span;
+            lat = previous.getLatitudeDegrees() + (next.getLatitudeDegrees() - previous.getLatitudeDegrees()) * fraction;
+            lon = previous.getLongitudeDegrees() + (next.getLongitudeDegrees() - previous.getLongitudeDegrees()) * fraction;
+            alt = previous.getGnssAltitudeMeters() + (next.getGnssAltitudeMeters() - previous.getGnssAltitudeMeters()) * fraction;
+            fixClimb = (span == 0) ? 0 : (double)(next.getGnssAltitudeMeters() - previous.getGnssAltitudeMeters()) / span;
+        }
+
+        double climb = fixClimb;
+        long interval = time - lastSampleTime;
+        if(hasLastSample && interval > 0 && interval <= GaggleMerger.MAX_GAP){
+            climb = (alt - lastSampleAlt) / interval;
+        }
+        hasLastSample = true;
+        lastSampleTime = time;
+        lastSampleAlt = alt;
+        return new TrackSample(name, time, lat, lon, alt, climb);
+    }
+}
@@ -0,0 +1,68 @@
+package igc2flightlog;
+
+/**
+ * The position of one track interpolated to a point on the common time base
+ * of a {@link GaggleMerger}.
+ * @author pedwards
+ */
+public final class TrackSample {
+
+    private final String name;
+    private final long time;
+    private final double latitude;
+    private final double longitude;
+    private final double altitude;
+    private final double climbRate;
+
+    TrackSample(String name, long time, double latitude, double longitude, double altitude, double climbRate) {
+        this.name = name;
+        this.time = time;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.altitude = altitude;
+        this.climbRate = climbRate;
+    }
+
+    /**
+     * @return the name of the IGC file the track came from
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return seconds since 1970-01-01 UTC
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * @return latitude in decimal degrees
+     */
+    public double getLatitude() {
+        return latitude;
+    }
+
+    /**
+     * @return longitude in decimal degrees
+     */
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * @return GPS altitude in meters
+     */
+    public double getAltitude() {
+        return altitude;
+    }
+
+    /**
+     * @return climb rate in meters per second since the previous time step, or
+     * between the fixes either side of the sample for the first step of a track
+     */
+    public double getClimbRate() {
+        return climbRate;
+    }
+}